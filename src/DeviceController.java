@@ -0,0 +1,110 @@
+/**
+ * DeviceController Class
+ *
+ * The DeviceController class performs the I/O requested by the IN and OUT instructions. Every process
+ * has its own file-backed devices: an input device read line by line and an output device that values
+ * are appended to. Requests run on their own threads, so a process waiting on a device does not hold
+ * the CPU while the dispatcher keeps executing other ready processes.
+ *
+ * Functions within the broader scope of the whole project:
+ * - Reads the next numeric value from a process's input device, skipping lines that are not numbers.
+ * - Appends a value to a process's output device, which is cleared the first time it is written in a run.
+ * - Returns pending requests as Futures that the dispatcher polls to unblock processes.
+ *
+ * Usage: Used by SharkOS to service I/O instructions. Input devices are expected in the "./devices/"
+ * directory, named after the program (e.g. "program7.txt" reads from "program7-in.txt").
+ */
+import java.io.*;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+
+public class DeviceController {
+
+    // Directory holding the device files of all processes
+    private static final String directory = "./devices/";
+
+    // Threads that service I/O requests; on JDK 21+ this can be Executors.newVirtualThreadPerTaskExecutor()
+    private final ExecutorService ioThreads;
+
+    // Open input devices, keyed by process name, so each IN reads the next line
+    private final Map<String, BufferedReader> inputDevices;
+
+    // Processes whose output device has already been cleared in this run
+    private final Set<String> outputDevices;
+
+    // Constructor initializes the I/O threads and the tables of open input and output devices
+    DeviceController() {
+        ioThreads = Executors.newCachedThreadPool();
+        inputDevices = new ConcurrentHashMap<>();
+        outputDevices = ConcurrentHashMap.newKeySet();
+    }
+
+    /*
+        Requests the next value from a process's input device.
+        Parameters:
+        - procName: name of the process (program file name)
+        Returns a Future holding the value read, or "0" once the device is exhausted.
+        Lines that are not integers are logged and skipped.
+    */
+    public Future<String> read(String procName) {
+        return ioThreads.submit(() -> {
+            BufferedReader device = inputDevices.get(procName);
+            if (device == null) {
+                File file = new File(directory + deviceName(procName, "in"));
+                if (!file.isFile()) {
+                    return "0";
+                }
+                device = new BufferedReader(new FileReader(file));
+                inputDevices.put(procName, device);
+            }
+            String line;
+            while ((line = device.readLine()) != null) {
+                try {
+                    return String.valueOf(Integer.parseInt(line.trim()));
+                } catch (NumberFormatException error) {
+                    System.out.println("[I/O] Skipping non-numeric input '" + line + "' for " + procName);
+                }
+            }
+            return "0";
+        });
+    }
+
+    /*
+        Requests a value to be appended to a process's output device.
+        Parameters:
+        - procName: name of the process (program file name)
+        - value: value to be written
+        Returns a Future holding the value written.
+    */
+    public Future<String> write(String procName, String value) {
+        return ioThreads.submit(() -> {
+            new File(directory).mkdirs();
+            // The first write in a run replaces the output of earlier runs
+            boolean append = !outputDevices.add(procName);
+            try (BufferedWriter device = new BufferedWriter(
+                    new FileWriter(directory + deviceName(procName, "out"), append))) {
+                device.write(value + "\n");
+            }
+            return value;
+        });
+    }
+
+    // Closes all input devices and stops the I/O threads
+    public void shutdown() {
+        for (BufferedReader device : inputDevices.values()) {
+            try {
+                device.close();
+            } catch (Exception error) {
+                System.out.println(error);
+            }
+        }
+        inputDevices.clear();
+        ioThreads.shutdown();
+    }
+
+    // Creates the device file name for a process (based on the program file name)
+    private String deviceName(String procName, String direction) {
+        return procName.split("\\.")[0] + "-" + direction + ".txt";
+    }
+}
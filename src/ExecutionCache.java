@@ -0,0 +1,247 @@
+/**
+ * ExecutionCache Class
+ *
+ * The ExecutionCache class memoizes the results of completed jobs. SharkOS programs are deterministic:
+ * the final registers and data memory depend only on the program text and the initial memory contents.
+ * The cache therefore keys each job on a hash of the memory image and starting registers and stores the final
+ * registers together with the memory cells the job changed, so a repeated job can be completed without
+ * re-executing its instructions.
+ *
+ * Functions within the broader scope of the whole project:
+ * - Computes a key from the loaded program, its initial data segment and the process's starting registers.
+ * - Stores and retrieves final register values and memory deltas, evicting the least recently used entry.
+ * - Optionally saves the cached results to a text file and loads them again on the next start-up.
+ * - Discards cached results written by a different version of the interpreter.
+ *
+ * Usage: Used by SharkOS to skip re-executing jobs whose results are already known.
+ */
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+public class ExecutionCache {
+
+    // Version of the interpreter and cache format; bump it whenever an instruction's behavior changes
+    static final int VERSION = 2;
+
+    // First line of the cache file, used to discard files written by another version
+    private static final String HEADER = "SharkOS execution cache v" + VERSION;
+
+    // Final register values and changed memory cells produced by a single job
+    public static class Result {
+        public int ACC;
+        public int PSIAR;
+        public int SAR;
+        public int SDR;
+        public int TMPR;
+        public String IR;
+        public Map<Integer, String> memDelta = new HashMap<>(); // address -> value after the job completed
+    }
+
+    // Maximum number of results kept in the cache
+    private final int capacity;
+
+    // File the cache is persisted to (null keeps the cache in memory only)
+    private final String cacheFile;
+
+    // Cached results in access order, so the eldest entry is the least recently used one
+    private final LinkedHashMap<String, Result> entries;
+
+    // Lookup statistics
+    int hits = 0;
+    int misses = 0;
+
+    /*
+        Constructor for the ExecutionCache class.
+        Parameters:
+        - capacity: maximum number of results kept before the least recently used one is evicted
+        - cacheFile: path of the file used for persistence, or null to disable persistence
+    */
+    ExecutionCache(int capacity, String cacheFile) {
+        this.capacity = capacity;
+        this.cacheFile = cacheFile;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Result> eldest) {
+                return size() > ExecutionCache.this.capacity;
+            }
+        };
+        this.load();
+    }
+
+    /*
+        Computes the cache key for a job.
+        The key is a SHA-256 hash over the cache version, the process's starting PSIAR and ACC, and every
+        occupied memory cell and its address, which covers both the loaded program and its initial data segment.
+        Parameters:
+        - mem: memory image before the job starts
+        - process: PCB holding the starting register values
+    */
+    public String key(String[] mem, PCB process) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(("version=" + VERSION + "\n").getBytes(StandardCharsets.UTF_8));
+            digest.update(("PSIAR=" + process.PSIAR + "\nACC=" + process.ACC + "\n").getBytes(StandardCharsets.UTF_8));
+            for (int address = 0; address < mem.length; address++) {
+                if (mem[address] != null) {
+                    digest.update((address + "=" + mem[address] + "\n").getBytes(StandardCharsets.UTF_8));
+                }
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException error) {
+            // Every Java platform provides SHA-256, and a weaker key could give one job another job's result
+            throw new IllegalStateException(error);
+        }
+    }
+
+    // Returns the cached result for a key, or null if the job has not been seen before
+    public Result get(String key) {
+        Result result = entries.get(key);
+        if (result == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return result;
+    }
+
+    /*
+        Stores the result of a completed job.
+        Parameters:
+        - key: key computed from the memory image before the job started
+        - process: PCB holding the final register values
+        - before: memory image before the job started
+        - after: memory image after the job completed
+    */
+    public void put(String key, PCB process, String[] before, String[] after) {
+        Result result = new Result();
+        result.ACC = process.ACC;
+        result.PSIAR = process.PSIAR;
+        result.SAR = process.SAR;
+        result.SDR = process.SDR;
+        result.TMPR = process.TMPR;
+        result.IR = process.IR;
+        for (int address = 0; address < after.length; address++) {
+            if (!Objects.equals(before[address], after[address])) {
+                result.memDelta.put(address, after[address]);
+            }
+        }
+        entries.put(key, result);
+    }
+
+    // Restores a cached result into the given process and memory
+    public void apply(Result result, PCB process, String[] mem) {
+        process.ACC = result.ACC;
+        process.PSIAR = result.PSIAR;
+        process.SAR = result.SAR;
+        process.SDR = result.SDR;
+        process.TMPR = result.TMPR;
+        process.IR = result.IR;
+        for (Map.Entry<Integer, String> cell : result.memDelta.entrySet()) {
+            if (cell.getKey() < mem.length) {
+                mem[cell.getKey()] = cell.getValue();
+            }
+        }
+    }
+
+    /*
+        Writes the cached results to the cache file, if persistence is enabled.
+        After the version header, every result is stored on one tab-separated line:
+        key, ACC, PSIAR, SAR, SDR, TMPR, IR, followed by one "address=value" field per changed memory cell
+        (a bare "address" marks a cell that was cleared).
+    */
+    public void save() {
+        if (cacheFile == null) {
+            return;
+        }
+        File file = new File(cacheFile);
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        try (BufferedWriter buff_writer = new BufferedWriter(new FileWriter(file, StandardCharsets.UTF_8))) {
+            buff_writer.write(HEADER + "\n");
+            for (Map.Entry<String, Result> entry : entries.entrySet()) {
+                String line = toLine(entry.getKey(), entry.getValue());
+                if (line != null) {
+                    buff_writer.write(line + "\n");
+                }
+            }
+        } catch (Exception error) {
+            // Handle any exceptions that occur during cache writing
+            System.out.println(error);
+        }
+    }
+
+    // Reads previously saved results from the cache file, if it exists
+    private void load() {
+        if (cacheFile == null || !new File(cacheFile).isFile()) {
+            return;
+        }
+        try (BufferedReader buff_reader = new BufferedReader(new FileReader(cacheFile, StandardCharsets.UTF_8))) {
+            // Results from another version may no longer match how the instructions behave
+            if (!HEADER.equals(buff_reader.readLine())) {
+                System.out.println("[CACHE] Discarding results saved by a different version: " + cacheFile);
+                return;
+            }
+            String line;
+            while ((line = buff_reader.readLine()) != null) {
+                try {
+                    fromLine(line);
+                } catch (RuntimeException error) {
+                    // A malformed line is skipped and dropped on the next save
+                    System.out.println("[CACHE] Skipping malformed entry: " + error);
+                }
+            }
+        } catch (Exception error) {
+            // An unreadable cache file is ignored and rebuilt on the next save
+            System.out.println(error);
+        }
+    }
+
+    // Formats a result as a cache file line, or returns null if a value cannot be stored on one line
+    private String toLine(String key, Result result) {
+        StringBuilder line = new StringBuilder(key);
+        line.append('\t').append(result.ACC).append('\t').append(result.PSIAR).append('\t').append(result.SAR)
+                .append('\t').append(result.SDR).append('\t').append(result.TMPR).append('\t').append(result.IR);
+        for (Map.Entry<Integer, String> cell : result.memDelta.entrySet()) {
+            line.append('\t').append(cell.getKey());
+            if (cell.getValue() != null) {
+                line.append('=').append(cell.getValue());
+            }
+        }
+        String formatted = line.toString();
+        return formatted.contains("\n") || formatted.contains("\r")
+                || formatted.split("\t", -1).length != 7 + result.memDelta.size() ? null : formatted;
+    }
+
+    // Parses a cache file line and stores the result it describes
+    private void fromLine(String line) {
+        String[] fields = line.split("\t", -1);
+        if (fields.length < 7 || !fields[0].matches("[0-9a-f]{64}")) {
+            throw new IllegalArgumentException("expected a key and six register fields");
+        }
+        Result result = new Result();
+        result.ACC = Integer.parseInt(fields[1]);
+        result.PSIAR = Integer.parseInt(fields[2]);
+        result.SAR = Integer.parseInt(fields[3]);
+        result.SDR = Integer.parseInt(fields[4]);
+        result.TMPR = Integer.parseInt(fields[5]);
+        result.IR = fields[6];
+        for (int i = 7; i < fields.length; i++) {
+            int separator = fields[i].indexOf('=');
+            int address = Integer.parseInt(separator < 0 ? fields[i] : fields[i].substring(0, separator));
+            if (address < 0) {
+                throw new IllegalArgumentException("negative memory address " + address);
+            }
+            result.memDelta.put(address, separator < 0 ? null : fields[i].substring(separator + 1));
+        }
+        entries.put(fields[0], result);
+    }
+
+    // Returns the number of cached results
+    public int size() {
+        return entries.size();
+    }
+}
@@ -9,10 +9,12 @@
  * - Represents a process and its state within the operating system.
  * - Stores registers such as ACC, PSIAR, SAR, SDR, TMPR, CSIAR, IR, and MIR for a process.
  * - Provides methods to reset registers and initialize the PCB object.
+ * - Saves the memory image, trace and pending I/O request of a process while it is BLOCKED.
  * 
  * Usage: Used to manage and control individual processes in the operating system.
  */
 import java.util.Arrays;
+import java.util.concurrent.Future;
 
 public class PCB {
 
@@ -30,6 +32,10 @@ public class PCB {
     public String procState = "READY"; // Process state, initialized to "READY"
     public int cpu_time; // Burst time for the process to complete
 
+    public String[] memImage = null; // Memory contents saved while the process is BLOCKED
+    public String traceLog = ""; // Register trace saved while the process is BLOCKED
+    public Future<String> ioRequest = null; // Pending device request of a BLOCKED process
+
     // Overrides the toString() method to provide a custom string representation of the PCB object
     @Override
     public String toString() {
@@ -6,10 +6,13 @@
  * 
  * Functions within the broader scope of the whole project:
  * - Tracks the arrival time (AT) of processes and manages quantum time (QT) allocated for all processes.
+ * - Tracks the processes that are BLOCKED on I/O until their device requests complete.
  * 
  * Usage: Used as part of the Round Robin Scheduler to manage process arrival times and quantum time.
  */
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 public class Scheduler {
@@ -20,8 +23,12 @@ public class Scheduler {
     // Holds the arrival times of processes in a map
     public Map<Integer, PCB> processArrivalTimes;
 
-    // Constructor initializes the data structure for tracking arrival times
+    // Holds the processes waiting on I/O, in the order they blocked
+    public List<PCB> blockedProcesses;
+
+    // Constructor initializes the data structures for tracking arrival times and blocked processes
     Scheduler() {
         processArrivalTimes = new HashMap<>();
+        blockedProcesses = new ArrayList<>();
     }
 }
@@ -3,7 +3,9 @@
  * 
  * The SharkMachine class contains the main method for starting the SharkOS operating system.
  * It prompts the user if they want to start the machine, and if the user inputs 'Y' or 'y',
- * it instantiates the SharkOS class, initiating the operating system.
+ * it instantiates the SharkOS class, initiating the operating system. Passing "--no-trace" as an
+ * argument logs only the final register values of each job, which allows SharkOS to reuse cached results.
+ * Passing "--no-persist" keeps those cached results in memory instead of saving them to disk.
  * 
  * Functions within the broader scope of the whole project:
  * - Provides a user interface for starting the SharkOS operating system.
@@ -11,6 +13,8 @@
  * 
  * Usage: Run the main method to start the SharkOS operating system.
  */
+import java.util.Arrays;
+import java.util.List;
 import java.util.Scanner;
 
 public class SharkMachine {
@@ -29,7 +33,10 @@ public class SharkMachine {
         // If the user's input is 'Y' or 'y', start the SharkOS
         if (userInput.equalsIgnoreCase("Y")) {
             // Instantiate the SharkOS class to initiate the operating system
-            SharkOS sharkOS = new SharkOS();
+            List<String> options = Arrays.asList(args);
+            boolean fullTrace = !options.contains("--no-trace");
+            boolean persistCache = !options.contains("--no-persist");
+            SharkOS sharkOS = new SharkOS(fullTrace, persistCache);
         }
 
         // Close the Scanner to prevent resource leak
@@ -10,15 +10,18 @@
  * Functions within the broader scope of the whole project:
  * - Initializes system resources, including memory, file handling, and process queue.
  * - Reads program files, creates Process Control Block (PCB) objects, and adds them to the request queue.
- * - Executes instructions (ADD, SUB, LDI, LDA, STR, CBR, BRH) and manages process states.
+ * - Executes instructions (ADD, SUB, LDI, LDA, STR, CBR, BRH, IN, OUT) and manages process states.
+ * - Blocks processes on I/O and keeps executing other ready processes until their requests complete.
  * - Implements round-robin scheduling to manage CPU time among processes.
  * - Outputs register values and process execution information to log files.
+ * - Reuses cached results for jobs that have already been executed when full traces are not requested.
  * 
  * Usage: Create an instance of SharkOS to activate the operating system and process jobs.
  * The class assumes the existence of program files in the "./programs/" directory.
  */
 import java.io.File;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
 
 public class SharkOS {
 
@@ -31,6 +34,19 @@ public class SharkOS {
     // RequestQueue instance for managing process requests
     RequestQueue RequestRhapsody;
 
+    // DeviceController instance for servicing IN and OUT instructions
+    DeviceController deviceDock;
+
+    // Number of I/O requests that blocked a process, and time the dispatcher spent idle waiting on them
+    int ioRequests = 0;
+    long ioIdleNanos = 0;
+
+    // ExecutionCache instance for reusing the results of previously executed jobs
+    ExecutionCache cacheCurator;
+
+    // Whether a register trace is logged for every instruction (bypasses the execution cache)
+    boolean fullTrace;
+
     // Array to represent system memory
     private String[] Mem;
 
@@ -42,8 +58,19 @@ public class SharkOS {
             "program1.txt", "program2.txt", "program3.txt", "program4.txt", "program5.txt", "program6.txt"
     };
 
-    // Constructor: Initializes resources and activates the operating system
+    // Whether cached results are saved to and loaded from disk
+    boolean persistCache;
+
+    // Constructor: Initializes resources and activates the operating system with full traces
     SharkOS() {
+        this(true, true);
+    }
+
+    // Constructor: Initializes resources and activates the operating system, optionally without full traces
+    // or without persisting the execution cache
+    SharkOS(boolean fullTrace, boolean persistCache) {
+        this.fullTrace = fullTrace;
+        this.persistCache = persistCache;
         this.initialize_resources();
         this.activate_OS();
     }
@@ -73,6 +100,10 @@ public class SharkOS {
         this.Mem = new String[1024];
         this.RequestRhapsody = new RequestQueue();
         this.fableForge = new FileHandler();
+        this.deviceDock = new DeviceController();
+        // The cache is only consulted without full traces, so only then is it read from and saved to disk
+        this.cacheCurator = new ExecutionCache(64,
+                persistCache && !fullTrace ? "./cache/execution-cache.txt" : null);
         this.process_set();
     }
 
@@ -95,51 +126,120 @@ public class SharkOS {
         System.out.println("Time Quantum for All Processes in the Request Queue: " +
                 RequestRhapsody.roundRobinQueue.quantumTime + " seconds\n\n");
 
+        long startTime = System.nanoTime();
+
         // Iterate through arrival times and execute processes
-        for (int arrivalTime = 0; arrivalTime <= maxArrivalTime; arrivalTime += 1) {
-            Map<Integer, PCB> processArrivalTimes = RequestRhapsody.roundRobinQueue.processArrivalTimes;
-            if (processArrivalTimes.containsKey(arrivalTime)) {
-                PCB currentProcess = processArrivalTimes.get(arrivalTime);
-                if (!currentProcess.procState.equalsIgnoreCase("finished")) {
-                    RequestRhapsody.enqueue(currentProcess);
-                    System.out.print("[PROCESS RUNNING] Process ID: " + RequestRhapsody.front().id[0] +
-                            " Arrived at " + arrivalTime + " seconds");
-                    System.out.println(" with a Burst Time of " + RequestRhapsody.front().cpu_time + " seconds\n");
+        try {
+            for (int arrivalTime = 0; arrivalTime <= maxArrivalTime; arrivalTime += 1) {
+                Map<Integer, PCB> processArrivalTimes = RequestRhapsody.roundRobinQueue.processArrivalTimes;
+                if (processArrivalTimes.containsKey(arrivalTime)) {
+                    PCB currentProcess = processArrivalTimes.get(arrivalTime);
+                    if (!currentProcess.procState.equalsIgnoreCase("finished")) {
+                        RequestRhapsody.enqueue(currentProcess);
+                        System.out.print("[PROCESS RUNNING] Process ID: " + RequestRhapsody.front().id[0] +
+                                " Arrived at " + arrivalTime + " seconds");
+                        System.out.println(" with a Burst Time of " + RequestRhapsody.front().cpu_time + " seconds\n");
+                    }
+                    init_jobs(arrivalTime);
                 }
-                init_jobs(arrivalTime);
             }
+        } finally {
+            // Keep completed results and release the I/O threads even if a job fails
+            cacheCurator.save();
+            deviceDock.shutdown();
         }
         System.out.println("All Jobs Completed");
+        if (!fullTrace) {
+            System.out.println("Execution Cache: " + cacheCurator.hits + " hits, " + cacheCurator.misses + " misses");
+        }
+        if (ioRequests > 0) {
+            long totalNanos = System.nanoTime() - startTime;
+            System.out.printf("I/O Requests: %d, CPU idle waiting on I/O: %.2f ms of %.2f ms (%.1f%% utilisation)%n",
+                    ioRequests, ioIdleNanos / 1e6, totalNanos / 1e6, 100.0 * (totalNanos - ioIdleNanos) / totalNanos);
+        }
     }
 
     // Initializes and processes jobs in the request queue
     private void init_jobs(int arrivalTime) {
-        // Iterate through the request queue and execute processes
-        while (!RequestRhapsody.empty()) {
+        Scheduler roundRobinQueue = RequestRhapsody.roundRobinQueue;
+
+        // Iterate through the request queue and execute processes, including those blocked on I/O
+        while (!RequestRhapsody.empty() || !roundRobinQueue.blockedProcesses.isEmpty()) {
+            unblock_jobs(roundRobinQueue);
+            // Every blocked process may have been terminated by a failed device request
+            if (RequestRhapsody.empty()) {
+                continue;
+            }
             PCB currentQueueProcess = RequestRhapsody.front();
-            Scheduler roundRobinQueue = RequestRhapsody.roundRobinQueue;
-            L_Prog(currentQueueProcess.id[0]);
+
+            // Restore the context of a process that was blocked on I/O, otherwise load its program
+            boolean resumed = currentQueueProcess.memImage != null;
+            if (resumed) {
+                System.arraycopy(currentQueueProcess.memImage, 0, Mem, 0, Mem.length);
+                registersOutput = currentQueueProcess.traceLog;
+                currentQueueProcess.memImage = null;
+                currentQueueProcess.traceLog = "";
+                // The I/O instruction completes now that its device has answered
+                if (fullTrace) {
+                    addRegistersToString();
+                }
+                currentQueueProcess.PSIAR++;
+            } else {
+                L_Prog(currentQueueProcess.id[0]);
+            }
 
             // Check if the process can complete within the time quantum
             if (currentQueueProcess.cpu_time - roundRobinQueue.quantumTime <= 0) {
-                // Execute instructions until the process completes
-                while (Mem[currentQueueProcess.PSIAR] != null
-                        && !Mem[currentQueueProcess.PSIAR].equalsIgnoreCase("HALT")) {
-                    String opCode = Mem[currentQueueProcess.PSIAR].split(" ")[0];
-                    switch (opCode) {
-                        case "ADD" -> this.ADD();
-                        case "SUB" -> this.SUB();
-                        case "LDI" -> this.LDI();
-                        case "LDA" -> this.LDA();
-                        case "STR" -> this.STR();
-                        case "CBR" -> this.CBR();
-                        case "BRH" -> this.BRH();
+                // Look up the job in the execution cache unless a full trace is requested or it performs I/O
+                String[] initialMem = Mem.clone();
+                String jobKey = fullTrace || resumed || uses_devices() ? null : cacheCurator.key(Mem, currentQueueProcess);
+                ExecutionCache.Result cachedResult = jobKey == null ? null : cacheCurator.get(jobKey);
+
+                if (cachedResult != null) {
+                    // Restore the final registers and memory without re-executing the job
+                    cacheCurator.apply(cachedResult, currentQueueProcess, Mem);
+                    System.out.println("[CACHE HIT] Process ID: " + currentQueueProcess.id[0]);
+                } else {
+                    // Execute instructions until the process completes or blocks on I/O
+                    while (Mem[currentQueueProcess.PSIAR] != null
+                            && !Mem[currentQueueProcess.PSIAR].equalsIgnoreCase("HALT")) {
+                        String opCode = Mem[currentQueueProcess.PSIAR].split(" ")[0];
+                        switch (opCode) {
+                            case "ADD" -> this.ADD();
+                            case "SUB" -> this.SUB();
+                            case "LDI" -> this.LDI();
+                            case "LDA" -> this.LDA();
+                            case "STR" -> this.STR();
+                            case "CBR" -> this.CBR();
+                            case "BRH" -> this.BRH();
+                            case "IN" -> this.IN();
+                            case "OUT" -> this.OUT();
+                        }
+                        // Update process state and registers
+                        currentQueueProcess.IR = opCode;
+                        roundRobinQueue.processArrivalTimes.get(arrivalTime).IR = opCode;
+                        // I/O instructions are logged once the process resumes with the device's answer
+                        if (currentQueueProcess.procState.equalsIgnoreCase("BLOCKED")) {
+                            break;
+                        }
+                        if (fullTrace) {
+                            addRegistersToString();
+                        }
+                        currentQueueProcess.PSIAR++;
                     }
-                    // Update process state and registers
-                    currentQueueProcess.IR = opCode;
-                    roundRobinQueue.processArrivalTimes.get(arrivalTime).IR = opCode;
+                    // Let other processes run while this one waits on its device
+                    if (currentQueueProcess.procState.equalsIgnoreCase("BLOCKED")) {
+                        block_job(currentQueueProcess, roundRobinQueue);
+                        continue;
+                    }
+                    // Remember the result so the same job can be skipped next time
+                    if (jobKey != null) {
+                        cacheCurator.put(jobKey, currentQueueProcess, initialMem, Mem);
+                    }
+                }
+                // Without a full trace only the final register values are logged
+                if (!fullTrace) {
                     addRegistersToString();
-                    currentQueueProcess.PSIAR++;
                 }
                 createOutput();
                 // Mark process as completed and dequeue it
@@ -170,7 +270,8 @@ public class SharkOS {
         registersOutput = "";
         for (Map.Entry<Integer, PCB> processes : roundRobinQueue.processArrivalTimes.entrySet()) {
             int id = Integer.parseInt(processes.getValue().id[1]);
-            if (!processes.getValue().procState.equalsIgnoreCase("finished") && !RequestRhapsody.find(id)
+            if (!processes.getValue().procState.equalsIgnoreCase("finished")
+                    && !processes.getValue().procState.equalsIgnoreCase("blocked") && !RequestRhapsody.find(id)
                     && processes.getKey() < RequestRhapsody.front().cpu_time) {
                 System.out.print("[ADDING TO QUEUE] Process ID: " + processes.getValue().id[0] +
                         " arrived at " + processes.getKey() + " seconds.");
@@ -184,6 +285,101 @@ public class SharkOS {
 
     }
 
+    // Saves the context of a process blocked on I/O and removes it from the request queue
+    private void block_job(PCB currentQueueProcess, Scheduler roundRobinQueue) {
+        currentQueueProcess.memImage = Mem.clone();
+        currentQueueProcess.traceLog = registersOutput;
+        registersOutput = "";
+        Arrays.fill(Mem, null);
+        roundRobinQueue.blockedProcesses.add(currentQueueProcess);
+        ioRequests++;
+        System.out.println("[BLOCKED] Process ID: " + currentQueueProcess.id[0] + " is waiting on "
+                + currentQueueProcess.IR + " I/O.");
+        RequestRhapsody.dequeue();
+        System.out.println("\t\t\t Updated System Queue: " + RequestRhapsody.string() + "\n");
+    }
+
+    // Returns blocked processes whose I/O has completed to the request queue,
+    // waiting for the earliest request only when no other process is ready to run
+    private void unblock_jobs(Scheduler roundRobinQueue) {
+        boolean idle = RequestRhapsody.empty();
+        Iterator<PCB> blocked = roundRobinQueue.blockedProcesses.iterator();
+        while (blocked.hasNext()) {
+            PCB process = blocked.next();
+            if (!idle && !process.ioRequest.isDone()) {
+                continue;
+            }
+            long waitStart = System.nanoTime();
+            boolean waited = !process.ioRequest.isDone();
+            String value;
+            try {
+                value = process.ioRequest.get();
+            } catch (ExecutionException error) {
+                // The device failed, so the process cannot continue past its I/O instruction
+                blocked.remove();
+                terminate_job(process, error.getCause());
+                continue;
+            } catch (InterruptedException error) {
+                // Abandon the request but keep the interrupt visible to the caller
+                Thread.currentThread().interrupt();
+                process.ioRequest.cancel(true);
+                blocked.remove();
+                terminate_job(process, error);
+                continue;
+            } finally {
+                if (waited) {
+                    ioIdleNanos += System.nanoTime() - waitStart;
+                }
+            }
+            // Values read by IN are stored at the address held in SAR
+            if (process.IR.equalsIgnoreCase("IN")) {
+                process.memImage[process.SAR] = value;
+                process.ACC = device_value(process, value);
+            }
+            process.SDR = device_value(process, value);
+            process.ioRequest = null;
+            process.procState = "READY";
+            blocked.remove();
+            RequestRhapsody.enqueue(process);
+            System.out.println("[I/O COMPLETED] Process ID: " + process.id[0] + " is ready to run.");
+            idle = false;
+        }
+    }
+
+    // Terminates a process whose device request failed, writing its trace and marking it finished
+    private void terminate_job(PCB process, Throwable cause) {
+        System.out.println("[I/O FAILED] Process ID: " + process.id[0] + " " + process.IR + " failed: " + cause);
+        createOutput(process.id[0], process.traceLog + "I/O FAILED: " + process.IR + " at instruction "
+                + (process.PSIAR + 1) + " - " + cause + "\n");
+        process.memImage = null;
+        process.traceLog = "";
+        process.ioRequest = null;
+        process.RESET_REGISTERS();
+        process.procState = "FINISHED";
+        System.out.println("[PROCESS TERMINATED] Process ID: " + process.id[0]);
+    }
+
+    // Converts a device value to an integer, using 0 for values that are not numbers
+    private int device_value(PCB process, String value) {
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException error) {
+            System.out.println("[I/O] Process ID: " + process.id[0] + " transferred non-numeric value '"
+                    + value + "', treating it as 0.");
+            return 0;
+        }
+    }
+
+    // Checks whether the loaded program uses IN or OUT, whose results are not deterministic
+    private boolean uses_devices() {
+        for (String cell : Mem) {
+            if (cell != null && (cell.startsWith("IN ") || cell.startsWith("OUT "))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     // Instruction: ADD (Addition)
     private void ADD() {
         int currDataAddress = Mem[RequestRhapsody.front().PSIAR] == null ? 0
@@ -260,6 +456,27 @@ public class SharkOS {
         RequestRhapsody.front().TMPR = currAddr;
     }
 
+    // Instruction: IN (Read from the Input Device into Memory)
+    private void IN() {
+        int currAddr = Mem[RequestRhapsody.front().PSIAR] == null ? 0
+                : Integer.parseInt(Mem[RequestRhapsody.front().PSIAR].split(" ")[1]);
+        RequestRhapsody.front().SAR = currAddr;
+        RequestRhapsody.front().TMPR = currAddr;
+        RequestRhapsody.front().ioRequest = deviceDock.read(RequestRhapsody.front().id[0]);
+        RequestRhapsody.front().procState = "BLOCKED";
+    }
+
+    // Instruction: OUT (Write Memory to the Output Device)
+    private void OUT() {
+        int currAddr = Mem[RequestRhapsody.front().PSIAR] == null ? 0
+                : Integer.parseInt(Mem[RequestRhapsody.front().PSIAR].split(" ")[1]);
+        String value = this.Mem[currAddr] == null ? "0" : this.Mem[currAddr];
+        RequestRhapsody.front().SAR = currAddr;
+        RequestRhapsody.front().TMPR = currAddr;
+        RequestRhapsody.front().ioRequest = deviceDock.write(RequestRhapsody.front().id[0], value);
+        RequestRhapsody.front().procState = "BLOCKED";
+    }
+
     // Instruction: HALT (Halt the Program)
     private void HALT() {
         System.out.println("halting");
@@ -287,7 +504,12 @@ public class SharkOS {
 
     // Writes register values to an output file
     private void createOutput() {
-        fableForge.wf(RequestRhapsody.front().id[0], registersOutput);
+        createOutput(RequestRhapsody.front().id[0], registersOutput);
         registersOutput = "";
     }
+
+    // Writes a process's log to its output file
+    private void createOutput(String procName, String log) {
+        fableForge.wf(procName, log);
+    }
 }